@@ -0,0 +1,7 @@
+import java.awt.*;
+
+interface Drawable {
+    void draw(Graphics2D g2d);
+
+    boolean isNear(Point p, int buffer);
+}
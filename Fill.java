@@ -0,0 +1,27 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+class Fill implements Drawable {
+    public final BufferedImage image;
+    public final int x;
+    public final int y;
+    public final double scale; // Maska je v pixelech zařízení, x a y také
+
+    public Fill(BufferedImage image, int x, int y, double scale) {
+        this.image = image;
+        this.x = x;
+        this.y = y;
+        this.scale = scale;
+    }
+
+    @Override
+    public void draw(Graphics2D g2d) {
+        g2d.drawImage(image, new AffineTransform(1 / scale, 0, 0, 1 / scale, x / scale, y / scale), null);
+    }
+
+    @Override
+    public boolean isNear(Point p, int buffer) {
+        return false; // Guma maže jen tahy, výplň jde vrátit přes Zpět
+    }
+}
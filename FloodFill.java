@@ -0,0 +1,116 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+
+class FloodFill {
+    private FloodFill() {
+    }
+
+    // Scanline vyplňování po celých úsecích řádku, bez rekurze (velké plochy nepřetečou zásobník).
+    // Pole filled je pomocná maska velikosti plátna, musí být celá false a tak se i vrací.
+    // Souřadnice jsou v pixelech bufferu, scale je poměr pixelů bufferu k bodům plátna.
+    public static Fill fill(int[] pixels, boolean[] filled, int width, int height, int startX, int startY,
+                            int tolerance, Color color, double scale) {
+        if (startX < 0 || startY < 0 || startX >= width || startY >= height) {
+            return null;
+        }
+
+        int seed = pixels[startY * width + startX];
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = startY * width + startX;
+
+        int minX = startX;
+        int maxX = startX;
+        int minY = startY;
+        int maxY = startY;
+
+        while (top > 0) {
+            int index = stack[--top];
+            if (filled[index] || !matches(pixels[index], seed, tolerance)) {
+                continue;
+            }
+            int y = index / width;
+            int rowStart = y * width;
+
+            int left = index;
+            while (left > rowStart && !filled[left - 1] && matches(pixels[left - 1], seed, tolerance)) {
+                left--;
+            }
+            int right = index;
+            while (right < rowStart + width - 1 && !filled[right + 1] && matches(pixels[right + 1], seed, tolerance)) {
+                right++;
+            }
+            for (int i = left; i <= right; i++) {
+                filled[i] = true;
+            }
+
+            minX = Math.min(minX, left - rowStart);
+            maxX = Math.max(maxX, right - rowStart);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+
+            // Do zásobníku jde jen jeden bod za každý souvislý úsek v sousedních řádcích
+            for (int offset = -width; offset <= width; offset += 2 * width) {
+                int neighbourRow = y + offset / width;
+                if (neighbourRow < 0 || neighbourRow >= height) {
+                    continue;
+                }
+                boolean inSpan = false;
+                for (int i = left + offset; i <= right + offset; i++) {
+                    if (!filled[i] && matches(pixels[i], seed, tolerance)) {
+                        if (!inSpan) {
+                            if (top == stack.length) {
+                                int[] grown = new int[stack.length * 2];
+                                System.arraycopy(stack, 0, grown, 0, top);
+                                stack = grown;
+                            }
+                            stack[top++] = i;
+                            inSpan = true;
+                        }
+                    } else {
+                        inSpan = false;
+                    }
+                }
+            }
+        }
+
+        int fillWidth = maxX - minX + 1;
+        int fillHeight = maxY - minY + 1;
+        // Výplň se ukládá jako 1bitová maska: index 0 průhledný, index 1 barva výplně
+        IndexColorModel colorModel = new IndexColorModel(1, 2,
+                new byte[]{0, (byte) color.getRed()},
+                new byte[]{0, (byte) color.getGreen()},
+                new byte[]{0, (byte) color.getBlue()},
+                new byte[]{0, (byte) color.getAlpha()});
+        BufferedImage image = new BufferedImage(fillWidth, fillHeight, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+        byte[] out = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = ((MultiPixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+        int argb = color.getRGB();
+        boolean changed = false;
+        for (int y = 0; y < fillHeight; y++) {
+            int source = (minY + y) * width + minX;
+            int target = y * stride;
+            for (int x = 0; x < fillWidth; x++) {
+                if (filled[source + x]) {
+                    filled[source + x] = false;
+                    out[target + (x >> 3)] |= (byte) (0x80 >> (x & 7));
+                    changed |= ((pixels[source + x] ^ argb) & 0xFFFFFF) != 0;
+                }
+            }
+        }
+        // Výplň, která nic viditelně nezmění, se nevrací (a tedy ani neuloží do historie)
+        return changed ? new Fill(image, minX, minY, scale) : null;
+    }
+
+    private static boolean matches(int rgb, int seed, int tolerance) {
+        if (rgb == seed) {
+            return true;
+        }
+        return Math.abs(((rgb >> 16) & 0xFF) - ((seed >> 16) & 0xFF)) <= tolerance
+                && Math.abs(((rgb >> 8) & 0xFF) - ((seed >> 8) & 0xFF)) <= tolerance
+                && Math.abs((rgb & 0xFF) - (seed & 0xFF)) <= tolerance;
+    }
+}
@@ -0,0 +1,169 @@
+import java.awt.*;
+import java.io.*;
+import java.util.concurrent.locks.LockSupport;
+
+// Záznam vstupu plátna: každá událost je typ (1 B), odstup od předchozí v µs (4 B) a data
+class InputTrace {
+    private static final int MAGIC = 0x4A4C5454; // "JLTT"
+    private static final int VERSION = 1;
+
+    public enum EventType {
+        PRESS, DRAG, RELEASE, TOOL, SIZE, TOLERANCE, COLOR, UNDO, CLEAR
+    }
+
+    // Velikost plátna při začátku nahrávání; změny velikosti během nahrávání se neukládají,
+    // takže záznam s nimi se přehraje jinak (hranice výplní závisí na velikosti plátna)
+    public final int width;
+    public final int height;
+    private final ByteArrayOutputStream bytes;
+    private final DataOutputStream out;
+    private int eventCount;
+    private long lastEventNanos;
+
+    public InputTrace(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bytes = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(bytes);
+        this.lastEventNanos = System.nanoTime();
+    }
+
+    private InputTrace(int width, int height, byte[] data, int eventCount) {
+        this(width, height);
+        this.bytes.write(data, 0, data.length);
+        this.eventCount = eventCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public void record(EventType type) {
+        try {
+            writeHeader(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void record(EventType type, int value) {
+        try {
+            writeHeader(type);
+            if (type == EventType.COLOR) {
+                out.writeInt(value);
+            } else {
+                out.writeShort(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void record(EventType type, int x, int y) {
+        try {
+            writeHeader(type);
+            out.writeShort(x);
+            out.writeShort(y);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHeader(EventType type) throws IOException {
+        long now = System.nanoTime();
+        long deltaMicros = (now - lastEventNanos) / 1000;
+        lastEventNanos = now;
+        out.writeByte(type.ordinal());
+        out.writeInt((int) Math.min(Integer.MAX_VALUE, deltaMicros));
+        eventCount++;
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream fileOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            fileOut.writeInt(MAGIC);
+            fileOut.writeByte(VERSION);
+            fileOut.writeInt(width);
+            fileOut.writeInt(height);
+            fileOut.writeInt(eventCount);
+            bytes.writeTo(fileOut);
+        }
+    }
+
+    public static InputTrace load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a trace file: " + file);
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            int eventCount = in.readInt();
+            if (width <= 0 || height <= 0 || eventCount < 0) {
+                throw new IOException("Corrupt trace header: " + file);
+            }
+            return new InputTrace(width, height, in.readAllBytes(), eventCount);
+        }
+    }
+
+    // Přehraje události do plátna; realtime dodrží původní odstupy, jinak jede co nejrychleji
+    public void replay(PaintCanvas canvas, boolean realtime) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        EventType[] types = EventType.values();
+        PaintCanvas.ToolMode[] tools = PaintCanvas.ToolMode.values();
+        long start = System.nanoTime();
+        long eventNanos = 0;
+
+        int i = 0;
+        try {
+            for (; i < eventCount; i++) {
+                int typeIndex = in.readUnsignedByte();
+                if (typeIndex >= types.length) {
+                    throw new IOException("Corrupt trace: unknown event type " + typeIndex + " at event " + i);
+                }
+                EventType type = types[typeIndex];
+                eventNanos += in.readInt() * 1000L;
+                if (realtime) {
+                    long wait = start + eventNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                switch (type) {
+                    case PRESS:
+                        canvas.press(new Point(in.readShort(), in.readShort()));
+                        break;
+                    case DRAG:
+                        canvas.drag(new Point(in.readShort(), in.readShort()));
+                        break;
+                    case RELEASE:
+                        canvas.release(new Point(in.readShort(), in.readShort()));
+                        break;
+                    case TOOL:
+                        int tool = in.readShort();
+                        if (tool < 0 || tool >= tools.length) {
+                            throw new IOException("Corrupt trace: unknown tool " + tool + " at event " + i);
+                        }
+                        canvas.setToolMode(tools[tool]);
+                        break;
+                    case SIZE:
+                        canvas.setToolSize(in.readShort());
+                        break;
+                    case TOLERANCE:
+                        canvas.setFillTolerance(in.readShort());
+                        break;
+                    case COLOR:
+                        canvas.setCurrentColor(new Color(in.readInt(), true));
+                        break;
+                    case UNDO:
+                        canvas.undoLastAction();
+                        break;
+                    case CLEAR:
+                        canvas.clearCanvas();
+                        break;
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Corrupt trace: file ends at event " + i + " of " + eventCount);
+        }
+    }
+}
@@ -1,15 +1,33 @@
-import java.util.ArrayList;
-
 class Operation {
     public final OperationType type;
-    public final ArrayList<Line> path;
+    public final Path path;
+    public final Fill fill;
+    public final int index; // Pozice smazaného tahu v kresbě, jen pro ERASE
+
+    public Operation(OperationType type) {
+        this(type, null, null, -1);
+    }
+
+    public Operation(OperationType type, Path path) {
+        this(type, path, null, -1);
+    }
+
+    public Operation(OperationType type, Path path, int index) {
+        this(type, path, null, index);
+    }
+
+    public Operation(OperationType type, Fill fill) {
+        this(type, null, fill, -1);
+    }
 
-    public Operation(OperationType type, ArrayList<Line> path) {
+    private Operation(OperationType type, Path path, Fill fill, int index) {
         this.type = type;
         this.path = path;
+        this.fill = fill;
+        this.index = index;
     }
 }
 
 enum OperationType {
-    DRAW, ERASE, LOAD_IMAGE
+    DRAW, ERASE, LOAD_IMAGE, FILL
 }
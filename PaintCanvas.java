@@ -2,25 +2,34 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Stack;
 
 class PaintCanvas extends JPanel {
-    private final ArrayList<ArrayList<Line>> paths = new ArrayList<>();
+    private final ArrayList<Drawable> drawing = new ArrayList<>(); // Tahy a výplně v pořadí, jak vznikly
     private final Stack<Operation> undoStack = new Stack<>();
-    private ArrayList<Line> currentPath;
+    private Path currentPath;
     private ToolMode currentTool = ToolMode.PEN;
     private int toolSize = 10;
+    private int fillTolerance = 32;
     private Color currentColor = Color.BLACK;
     private Point cursorPosition = new Point(0, 0);
     private BufferedImage loadedImage = null;
     private BufferedImage originalImage = null; // Uloží původní načtený obrázek
+    private BufferedImage drawingCache = null; // Hotová kresba, překresluje se jen při změně
+    private BufferedImage cachedImage = null; // Obrázek pozadí, ze kterého je cache vykreslená
+    private boolean drawingCacheValid = false;
+    private double cacheScale = 1.0; // Měřítko zařízení (HiDPI), v jakém je cache vykreslená
+    private boolean[] fillMask = null; // Pomocná maska pro výplň, znovu se používá mezi kliknutími
+    private InputTrace recorder = null; // Nahrávaný záznam vstupu, null pokud se nenahrává
 
     public enum ToolMode {
-        PEN, ERASER
+        PEN, ERASER, FILL
     }
 
     public PaintCanvas() {
@@ -29,42 +38,19 @@ class PaintCanvas extends JPanel {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                currentPath = new ArrayList<>();
-                cursorPosition = e.getPoint();
-                if (currentTool == ToolMode.ERASER) {
-                    eraseAtPoint(e.getPoint());
-                }
-                repaint();
+                press(e.getPoint());
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
-                cursorPosition = e.getPoint();
-                if (currentTool == ToolMode.PEN && currentPath != null && !currentPath.isEmpty()) {
-                    paths.add(currentPath);
-                    undoStack.push(new Operation(OperationType.DRAW, new ArrayList<>(currentPath)));
-                }
-                currentPath = null;
-                repaint();
+                release(e.getPoint());
             }
         });
 
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                cursorPosition = e.getPoint();
-                if (currentTool == ToolMode.ERASER) {
-                    eraseAtPoint(e.getPoint());
-                } else if (currentTool == ToolMode.PEN && currentPath != null) {
-                    Point endPoint = e.getPoint();
-                    if (!currentPath.isEmpty()) {
-                        Point startPoint = currentPath.get(currentPath.size() - 1).end;
-                        currentPath.add(new Line(startPoint, endPoint, currentColor, toolSize));
-                    } else {
-                        currentPath.add(new Line(e.getPoint(), e.getPoint(), currentColor, toolSize));
-                    }
-                }
-                repaint();
+                drag(e.getPoint());
             }
 
             @Override
@@ -75,15 +61,62 @@ class PaintCanvas extends JPanel {
         });
     }
 
+    void press(Point point) {
+        if (recorder != null) recorder.record(InputTrace.EventType.PRESS, point.x, point.y);
+        currentPath = new Path();
+        cursorPosition = point;
+        if (currentTool == ToolMode.ERASER) {
+            eraseAtPoint(point);
+        } else if (currentTool == ToolMode.FILL) {
+            fillAtPoint(point);
+        }
+        repaint();
+    }
+
+    void drag(Point point) {
+        if (recorder != null) recorder.record(InputTrace.EventType.DRAG, point.x, point.y);
+        cursorPosition = point;
+        if (currentTool == ToolMode.ERASER) {
+            eraseAtPoint(point);
+        } else if (currentTool == ToolMode.PEN && currentPath != null) {
+            if (!currentPath.lines.isEmpty()) {
+                Point startPoint = currentPath.lines.get(currentPath.lines.size() - 1).end;
+                currentPath.lines.add(new Line(startPoint, point, currentColor, toolSize));
+            } else {
+                currentPath.lines.add(new Line(point, point, currentColor, toolSize));
+            }
+        }
+        repaint();
+    }
+
+    void release(Point point) {
+        if (recorder != null) recorder.record(InputTrace.EventType.RELEASE, point.x, point.y);
+        cursorPosition = point;
+        if (currentTool == ToolMode.PEN && currentPath != null && !currentPath.lines.isEmpty()) {
+            addToDrawing(currentPath);
+            undoStack.push(new Operation(OperationType.DRAW, currentPath));
+        }
+        currentPath = null;
+        repaint();
+    }
+
     public void setToolMode(ToolMode mode) {
+        if (recorder != null) recorder.record(InputTrace.EventType.TOOL, mode.ordinal());
         currentTool = mode;
     }
 
     public void setToolSize(int size) {
+        if (recorder != null) recorder.record(InputTrace.EventType.SIZE, size);
         toolSize = size;
     }
 
+    public void setFillTolerance(int tolerance) {
+        if (recorder != null) recorder.record(InputTrace.EventType.TOLERANCE, tolerance);
+        fillTolerance = Math.min(255, Math.max(0, tolerance));
+    }
+
     public void setCurrentColor(Color color) {
+        if (recorder != null) recorder.record(InputTrace.EventType.COLOR, color.getRGB());
         this.currentColor = color;
         repaint();
     }
@@ -93,20 +126,109 @@ class PaintCanvas extends JPanel {
     }
 
     private void eraseAtPoint(Point point) {
-        for (int i = paths.size() - 1; i >= 0; i--) {
-            ArrayList<Line> path = paths.get(i);
-            for (Line line : path) {
-                if (line.isNear(point, toolSize)) {
-                    undoStack.push(new Operation(OperationType.ERASE, paths.remove(i)));
-                    repaint();
-                    return;
-                }
+        for (int i = drawing.size() - 1; i >= 0; i--) {
+            if (drawing.get(i).isNear(point, toolSize)) {
+                undoStack.push(new Operation(OperationType.ERASE, (Path) drawing.remove(i), i));
+                drawingCacheValid = false;
+                repaint();
+                return;
             }
         }
     }
 
+    private void fillAtPoint(Point point) {
+        if (getWidth() <= 0 || getHeight() <= 0) return;
+
+        // Výplň čte přímo pixely cache, bez kopie celého plátna; pracuje v pixelech zařízení
+        BufferedImage cache = getDrawingCache();
+        int width = cache.getWidth();
+        int height = cache.getHeight();
+        int[] pixels = ((DataBufferInt) cache.getRaster().getDataBuffer()).getData();
+        if (fillMask == null || fillMask.length != width * height) {
+            fillMask = new boolean[width * height];
+        }
+        int x = (int) (point.x * cacheScale);
+        int y = (int) (point.y * cacheScale);
+        Fill fill = FloodFill.fill(pixels, fillMask, width, height, x, y, fillTolerance, currentColor, cacheScale);
+        if (fill != null) {
+            addToDrawing(fill);
+            undoStack.push(new Operation(OperationType.FILL, fill));
+        }
+    }
+
+    private void addToDrawing(Drawable item) {
+        drawing.add(item);
+        // Nový prvek je vždy nahoře, stačí ho dokreslit do cache
+        if (drawingCacheValid) {
+            Graphics2D g2d = drawingCache.createGraphics();
+            g2d.scale(cacheScale, cacheScale);
+            item.draw(g2d);
+            g2d.dispose();
+        }
+    }
+
+    private BufferedImage getDrawingCache() {
+        int width = (int) Math.ceil(getWidth() * cacheScale);
+        int height = (int) Math.ceil(getHeight() * cacheScale);
+        if (drawingCache == null || drawingCache.getWidth() != width || drawingCache.getHeight() != height) {
+            drawingCache = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            drawingCacheValid = false;
+        }
+        if (!drawingCacheValid || cachedImage != loadedImage) {
+            Graphics2D g2d = drawingCache.createGraphics();
+            g2d.scale(cacheScale, cacheScale);
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+            paintDrawing(g2d);
+            g2d.dispose();
+            cachedImage = loadedImage;
+            drawingCacheValid = true;
+        }
+        return drawingCache;
+    }
+
+    // Vykreslí kresbu bez kurzoru do nového obrázku velikosti plátna
+    BufferedImage renderDrawing() {
+        BufferedImage image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+        paintDrawing(g2d);
+        g2d.dispose();
+        return image;
+    }
+
+    // Nahrávání vždy začíná prázdným plátnem, stejně jako přehrávání. Záznam obsahuje jen
+    // kreslení, proto se během nahrávání nedá načíst, vygenerovat ani filtrovat obrázek.
+    public void startRecording() {
+        if (recorder != null) return; // Rozběhnutý záznam se nepřepisuje
+        recorder = new InputTrace(getWidth(), getHeight());
+        clearCanvas();
+        // Počáteční stav nástroje, aby přehrávání nezáviselo na výchozích hodnotách
+        recorder.record(InputTrace.EventType.TOOL, currentTool.ordinal());
+        recorder.record(InputTrace.EventType.SIZE, toolSize);
+        recorder.record(InputTrace.EventType.TOLERANCE, fillTolerance);
+        recorder.record(InputTrace.EventType.COLOR, currentColor.getRGB());
+    }
+
+    public InputTrace stopRecording() {
+        InputTrace trace = recorder;
+        recorder = null;
+        return trace;
+    }
+
+    public InputTrace getRecording() {
+        return recorder;
+    }
+
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
     public void clearCanvas() {
-        paths.clear();
+        if (recorder != null) recorder.record(InputTrace.EventType.CLEAR);
+        drawing.clear();
+        drawingCacheValid = false;
         undoStack.clear();
         currentPath = null;
         loadedImage = null;
@@ -115,27 +237,32 @@ class PaintCanvas extends JPanel {
     }
 
     public void undoLastAction() {
+        if (recorder != null) recorder.record(InputTrace.EventType.UNDO);
         if (!undoStack.isEmpty()) {
             Operation lastOperation = undoStack.pop();
             if (lastOperation.type == OperationType.DRAW) {
-                paths.remove(lastOperation.path);
+                drawing.remove(lastOperation.path);
             } else if (lastOperation.type == OperationType.ERASE) {
-                paths.add(lastOperation.path);
+                drawing.add(lastOperation.index, lastOperation.path);
             } else if (lastOperation.type == OperationType.LOAD_IMAGE) {
                 loadedImage = null;
+            } else if (lastOperation.type == OperationType.FILL) {
+                drawing.remove(lastOperation.fill);
             }
+            drawingCacheValid = false;
             repaint();
         }
     }
 
     public void loadImage() {
+        if (recorder != null) return;
         JFileChooser fileChooser = new JFileChooser();
         int returnValue = fileChooser.showOpenDialog(this);
         if (returnValue == JFileChooser.APPROVE_OPTION) {
             try {
                 loadedImage = ImageIO.read(fileChooser.getSelectedFile());
                 originalImage = ImageIO.read(fileChooser.getSelectedFile()); // Uloží původní obrázek
-                undoStack.push(new Operation(OperationType.LOAD_IMAGE, null));
+                undoStack.push(new Operation(OperationType.LOAD_IMAGE));
                 repaint();
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(this, "Chyba při načítání obrázku!", "Chyba", JOptionPane.ERROR_MESSAGE);
@@ -165,6 +292,7 @@ class PaintCanvas extends JPanel {
     }
 
     public void restoreImage() {
+        if (recorder != null) return;
         if (originalImage != null) {
             loadedImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), originalImage.getType());
             Graphics g = loadedImage.getGraphics();
@@ -177,6 +305,7 @@ class PaintCanvas extends JPanel {
     }
 
     public void applyNegativeFilter() {
+        if (recorder != null) return;
         if (loadedImage != null) {
             int width = loadedImage.getWidth();
             int height = loadedImage.getHeight();
@@ -197,7 +326,7 @@ class PaintCanvas extends JPanel {
     }
 
     public void applyThreshold(int threshold) {
-        if (originalImage == null) return; // Pracujeme s originálním obrázkem
+        if (originalImage == null || recorder != null) return; // Pracujeme s originálním obrázkem
     
         loadedImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), originalImage.getType());
         for (int x = 0; x < originalImage.getWidth(); x++) {
@@ -215,7 +344,7 @@ class PaintCanvas extends JPanel {
     }
 
     public void applyRGBFilter(int redOffset, int greenOffset, int blueOffset) {
-        if (originalImage == null) return; // Pracujeme s originálním obrázkem
+        if (originalImage == null || recorder != null) return; // Pracujeme s originálním obrázkem
     
         loadedImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), originalImage.getType());
         for (int x = 0; x < originalImage.getWidth(); x++) {
@@ -242,11 +371,13 @@ class PaintCanvas extends JPanel {
     }
     
     public void setLoadedImage(BufferedImage image) {
+        if (recorder != null) return;
         this.loadedImage = image;
         repaint();
     }
 
     public void setImage(BufferedImage image) {
+        if (recorder != null) return;
         this.loadedImage = image;
         repaint();
     }
@@ -256,6 +387,34 @@ protected void paintComponent(Graphics g) {
     super.paintComponent(g);
     Graphics2D g2d = (Graphics2D) g;
 
+    if (getWidth() > 0 && getHeight() > 0) {
+        // Cache má rozlišení zařízení, aby kresba na HiDPI displejích nebyla rozmazaná
+        double scale = g2d.getTransform().getScaleX();
+        if (scale > 0 && scale != cacheScale) {
+            cacheScale = scale;
+            drawingCacheValid = false;
+        }
+        g2d.drawImage(getDrawingCache(), AffineTransform.getScaleInstance(1 / cacheScale, 1 / cacheScale), null);
+    }
+
+    if (currentPath != null) {
+        currentPath.draw(g2d);
+    }
+
+    if (currentTool == ToolMode.ERASER) {
+        g2d.setColor(Color.WHITE); // Bílá výplň
+        g2d.fillRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
+        g2d.setColor(Color.BLACK); // Černý rámeček
+        g2d.drawRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
+    } else {
+        g2d.setColor(currentColor); // Barva kurzoru odpovídá zvolené barvě
+        g2d.fillRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
+        g2d.drawRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
+    }
+}
+
+// Vykreslí obrázek a přes něj tahy a výplně v pořadí, jak vznikly
+private void paintDrawing(Graphics2D g2d) {
     if (loadedImage != null) {
         int panelWidth = getWidth();
         int panelHeight = getHeight();
@@ -278,31 +437,8 @@ protected void paintComponent(Graphics g) {
         g2d.drawImage(loadedImage, x, y, newWidth, newHeight, null);
     }
 
-    for (ArrayList<Line> path : paths) {
-        for (Line line : path) {
-            g2d.setColor(line.color);
-            g2d.setStroke(new BasicStroke(line.thickness));
-            g2d.drawLine(line.start.x, line.start.y, line.end.x, line.end.y);
-        }
-    }
-
-    if (currentPath != null) {
-        for (Line line : currentPath) {
-            g2d.setColor(line.color);
-            g2d.setStroke(new BasicStroke(line.thickness));
-            g2d.drawLine(line.start.x, line.start.y, line.end.x, line.end.y);
-        }
-    }
-
-    if (currentTool == ToolMode.ERASER) {
-        g2d.setColor(Color.WHITE); // Bílá výplň
-        g2d.fillRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
-        g2d.setColor(Color.BLACK); // Černý rámeček
-        g2d.drawRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
-    } else {
-        g2d.setColor(currentColor); // Barva kurzoru odpovídá zvolené barvě
-        g2d.fillRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
-        g2d.drawRect(cursorPosition.x - toolSize / 2, cursorPosition.y - toolSize / 2, toolSize, toolSize);
+    for (Drawable item : drawing) {
+        item.draw(g2d);
     }
 }
 
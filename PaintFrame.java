@@ -1,10 +1,15 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.Random;
 
 class PaintFrame extends JFrame {
     private final PaintCanvas canvas;
+    private final JMenuItem loadItem;
+    private final JMenuItem restoreItem;
+    private final JMenu filterMenu;
+    private final JMenu generateMenu;
 
     public PaintFrame() {
         setTitle("Malování");
@@ -18,7 +23,7 @@ class PaintFrame extends JFrame {
         JMenuBar menuBar = new JMenuBar();
         JMenu fileMenu = new JMenu("File");
 
-        JMenuItem loadItem = new JMenuItem("Load Image");
+        loadItem = new JMenuItem("Load Image");
         loadItem.addActionListener(e -> canvas.loadImage());
         fileMenu.add(loadItem);
 
@@ -26,10 +31,22 @@ class PaintFrame extends JFrame {
         saveItem.addActionListener(e -> canvas.saveImage());
         fileMenu.add(saveItem);
 
-        JMenuItem restoreItem = new JMenuItem("Restore Original Image");
+        restoreItem = new JMenuItem("Restore Original Image");
         restoreItem.addActionListener(e -> canvas.restoreImage());
         fileMenu.add(restoreItem);
 
+        JMenuItem startTraceItem = new JMenuItem("Start Trace Recording");
+        startTraceItem.addActionListener(e -> startTrace());
+        fileMenu.add(startTraceItem);
+
+        JMenuItem stopTraceItem = new JMenuItem("Stop Trace Recording");
+        stopTraceItem.addActionListener(e -> saveTrace());
+        fileMenu.add(stopTraceItem);
+
+        JMenuItem replayTraceItem = new JMenuItem("Replay Trace");
+        replayTraceItem.addActionListener(e -> replayTrace());
+        fileMenu.add(replayTraceItem);
+
         menuBar.add(fileMenu);
 
         JMenuItem exitItem = new JMenuItem("Exit");
@@ -46,7 +63,7 @@ class PaintFrame extends JFrame {
         });
         fileMenu.add(exitItem);
 
-        JMenu filterMenu = new JMenu("Filters");
+        filterMenu = new JMenu("Filters");
 
         JMenuItem negativeItem = new JMenuItem("Negative");
         negativeItem.addActionListener(e -> canvas.applyNegativeFilter());
@@ -62,7 +79,7 @@ class PaintFrame extends JFrame {
 
         menuBar.add(filterMenu);
 
-        JMenu generateMenu = new JMenu("Generate Image");
+        generateMenu = new JMenu("Generate Image");
         JMenuItem generateItem = new JMenuItem("Generate Image");
         generateItem.addActionListener(e -> generateImage());
         generateMenu.add(generateItem);
@@ -89,16 +106,20 @@ class PaintFrame extends JFrame {
 
         JToggleButton eraserButton = new JToggleButton("Eraser");
         JToggleButton penButton = new JToggleButton("Pen", true);
+        JToggleButton fillButton = new JToggleButton("Fill");
 
         ButtonGroup toolGroup = new ButtonGroup();
         toolGroup.add(eraserButton);
         toolGroup.add(penButton);
+        toolGroup.add(fillButton);
 
         eraserButton.addActionListener(e -> canvas.setToolMode(PaintCanvas.ToolMode.ERASER));
         penButton.addActionListener(e -> canvas.setToolMode(PaintCanvas.ToolMode.PEN));
+        fillButton.addActionListener(e -> canvas.setToolMode(PaintCanvas.ToolMode.FILL));
 
         buttonPanel.add(penButton);
         buttonPanel.add(eraserButton);
+        buttonPanel.add(fillButton);
 
         JLabel thicknessLabel = new JLabel("Thickness: ");
         buttonPanel.add(thicknessLabel);
@@ -107,6 +128,13 @@ class PaintFrame extends JFrame {
         thicknessSpinner.addChangeListener(e -> canvas.setToolSize((int) thicknessSpinner.getValue()));
         buttonPanel.add(thicknessSpinner);
 
+        JLabel toleranceLabel = new JLabel("Tolerance: ");
+        buttonPanel.add(toleranceLabel);
+
+        JSpinner toleranceSpinner = new JSpinner(new SpinnerNumberModel(32, 0, 255, 1));
+        toleranceSpinner.addChangeListener(e -> canvas.setFillTolerance((int) toleranceSpinner.getValue()));
+        buttonPanel.add(toleranceSpinner);
+
         JLabel colorLabel = new JLabel("Color: ");
         buttonPanel.add(colorLabel);
 
@@ -126,6 +154,94 @@ class PaintFrame extends JFrame {
         setVisible(true);
     }
 
+    private void startTrace() {
+        if (canvas.isRecording()) {
+            JOptionPane.showMessageDialog(this, "A trace is already being recorded.", "Trace", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int response = JOptionPane.showConfirmDialog(this,
+                "Recording starts from an empty canvas. Clear the canvas and start recording?",
+                "Start Trace Recording",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+        if (response == JOptionPane.YES_OPTION) {
+            canvas.startRecording();
+            setImageEditingEnabled(false);
+        }
+    }
+
+    // Záznam neumí přehrát změny obrázku na pozadí, proto jsou během nahrávání vypnuté
+    private void setImageEditingEnabled(boolean enabled) {
+        loadItem.setEnabled(enabled);
+        restoreItem.setEnabled(enabled);
+        filterMenu.setEnabled(enabled);
+        generateMenu.setEnabled(enabled);
+    }
+
+    private void saveTrace() {
+        if (!canvas.isRecording()) {
+            JOptionPane.showMessageDialog(this, "No trace is being recorded.", "Trace", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        // Nahrávání se zastaví až po úspěšném uložení, při zrušení nebo chybě běží dál
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                canvas.getRecording().save(fileChooser.getSelectedFile());
+                canvas.stopRecording();
+                setImageEditingEnabled(true);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this, "Error saving trace! Recording continues.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void replayTrace() {
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        InputTrace trace;
+        try {
+            trace = InputTrace.load(fileChooser.getSelectedFile());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error loading trace!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        Object[] options = {"As Fast As Possible", "Original Pacing"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Choose the replay speed:",
+                "Replay Trace",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]);
+        if (choice == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
+        boolean realtime = choice == JOptionPane.NO_OPTION;
+
+        // Plátno vznikne na EDT, pak ho dostane jen worker; nikdy se nezobrazí, okno zůstane ovladatelné
+        PaintCanvas replayCanvas = new PaintCanvas();
+        new SwingWorker<TraceReplay, Void>() {
+            @Override
+            protected TraceReplay doInBackground() throws Exception {
+                return TraceReplay.run(replayCanvas, trace, realtime);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(PaintFrame.this, get().toString(), "Replay Finished", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(PaintFrame.this, "Error replaying trace!", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     private void generateImage() {
         Object[] options = {"Generate Wallpaper", "Generate Sun"};
         int choice = JOptionPane.showOptionDialog(this,
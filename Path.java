@@ -0,0 +1,25 @@
+import java.awt.*;
+import java.util.ArrayList;
+
+class Path implements Drawable {
+    public final ArrayList<Line> lines = new ArrayList<>();
+
+    @Override
+    public void draw(Graphics2D g2d) {
+        for (Line line : lines) {
+            g2d.setColor(line.color);
+            g2d.setStroke(new BasicStroke(line.thickness));
+            g2d.drawLine(line.start.x, line.start.y, line.end.x, line.end.y);
+        }
+    }
+
+    @Override
+    public boolean isNear(Point p, int buffer) {
+        for (Line line : lines) {
+            if (line.isNear(p, buffer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Přehrání záznamu do neviditelného plátna, slouží jako regresní test a měření propustnosti
+class TraceReplay {
+    public final int eventCount;
+    public final long elapsedNanos;
+    public final BufferedImage image;
+    public final String imageHash;
+
+    private TraceReplay(int eventCount, long elapsedNanos, BufferedImage image, String imageHash) {
+        this.eventCount = eventCount;
+        this.elapsedNanos = elapsedNanos;
+        this.image = image;
+        this.imageHash = imageHash;
+    }
+
+    // Pro příkazovou řádku: plátno se nikdy nezobrazí ani nevloží do okna, takže ho smí
+    // vytvořit a používat jediné vlákno, které přehrává
+    public static TraceReplay run(InputTrace trace, boolean realtime) throws IOException {
+        return run(new PaintCanvas(), trace, realtime);
+    }
+
+    // Plátno musí být nové a nezobrazené; z GUI se vytváří na EDT a předá se vláknu přehrávání
+    public static TraceReplay run(PaintCanvas canvas, InputTrace trace, boolean realtime) throws IOException {
+        canvas.setSize(trace.width, trace.height);
+
+        long start = System.nanoTime();
+        trace.replay(canvas, realtime);
+        BufferedImage image = canvas.renderDrawing();
+        long elapsed = System.nanoTime() - start;
+
+        return new TraceReplay(trace.getEventCount(), elapsed, image, hash(image));
+    }
+
+    private static String hash(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        byte[] bytes = new byte[pixels.length * 4];
+        for (int i = 0; i < pixels.length; i++) {
+            bytes[i * 4] = (byte) (pixels[i] >> 24);
+            bytes[i * 4 + 1] = (byte) (pixels[i] >> 16);
+            bytes[i * 4 + 2] = (byte) (pixels[i] >> 8);
+            bytes[i * 4 + 3] = (byte) pixels[i];
+        }
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        double millis = elapsedNanos / 1_000_000.0;
+        double eventsPerSecond = elapsedNanos > 0 ? eventCount / (elapsedNanos / 1_000_000_000.0) : 0;
+        return String.format("Events: %d%nTime: %.1f ms (%.0f events/s)%nImage hash: %s",
+                eventCount, millis, eventsPerSecond, imageHash);
+    }
+
+    // Použití: java TraceReplay <soubor> [--realtime]
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java TraceReplay <trace file> [--realtime]");
+            System.exit(1);
+        }
+        System.setProperty("java.awt.headless", "true");
+        boolean realtime = args.length > 1 && args[1].equals("--realtime");
+        try {
+            System.out.println(run(InputTrace.load(new File(args[0])), realtime));
+        } catch (IOException e) {
+            System.err.println("Cannot replay trace: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}